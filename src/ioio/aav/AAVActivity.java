@@ -45,12 +45,14 @@ import org.opencv.imgproc.Imgproc;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
 import android.util.Log;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.WindowManager;
+import android.widget.Toast;
 
 public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 
@@ -58,6 +60,8 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 
 	static final double MIN_CONTOUR_AREA = 100;
 
+	static final boolean FLIP_FRAME = android.os.Build.MODEL.equalsIgnoreCase("Nexus 5X");
+
 	private Mat _rgbaImage;
 
 	private JavaCameraView _opencvCameraView;
@@ -71,6 +75,9 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 	Mat _hsvMat;
 	Mat _processedMat;
 	Mat _dilatedMat;
+	Mat _erodeKernel;
+	Mat _hierarchyMat;
+	MatOfPoint2f _contourPoints;
 	Scalar _lowerThreshold;
 	Scalar _upperThreshold;
 	final List<MatOfPoint> contours = new ArrayList<MatOfPoint>();
@@ -81,13 +88,13 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 
 	private boolean _showContourEnable = false;
 
-	// See Static Initialization of OpenCV (http://tinyurl.com/zof437m)
-	//
-	static {
-		if (!OpenCVLoader.initDebug()) {
-			Log.d("ERROR", "Unable to load OpenCV");
-		}
-	}
+	// Only touched on the UI thread
+	private boolean _isResumed = false;
+	private boolean _openCvLoaded = false;
+
+	private long _startupNanos;
+	private volatile boolean _firstFrameReported = false;
+	private volatile boolean _firstTrackedFrameReported = false;
 
 	private BaseLoaderCallback mLoaderCallback = new BaseLoaderCallback(this) {
 		@Override
@@ -95,9 +102,14 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 			switch (status) {
 			case LoaderCallbackInterface.SUCCESS: {
 				_opencvCameraView.enableView();
-				_hsvMat = new Mat();
-				_processedMat = new Mat();
-				_dilatedMat = new Mat();
+				if (_hsvMat == null) {
+					_hsvMat = new Mat();
+					_processedMat = new Mat();
+					_dilatedMat = new Mat();
+					_erodeKernel = new Mat();
+					_hierarchyMat = new Mat();
+					_contourPoints = new MatOfPoint2f();
+				}
 			}
 				break;
 			default: {
@@ -112,6 +124,8 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
+		_startupNanos = SystemClock.elapsedRealtimeNanos();
+		loadOpenCvAsync();
 		// requestWindowFeature(Window.FEATURE_NO_TITLE);
 		getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 
@@ -121,16 +135,8 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 		_sharedPreferences = PreferenceManager.getDefaultSharedPreferences(this);
 		_trackingColor = Integer.parseInt(_sharedPreferences.getString(getString(R.string.color_key), "0"));
 
-		if (_trackingColor == 0) {
-			_lowerThreshold = new Scalar(60, 100, 30); // Green
-			_upperThreshold = new Scalar(130, 255, 255);
-		} else if (_trackingColor == 1) {
-			_lowerThreshold = new Scalar(160, 50, 90); // Purple
-			_upperThreshold = new Scalar(255, 255, 255);
-		} else if (_trackingColor == 2) {
-			_lowerThreshold = new Scalar(1, 50, 150); // Orange
-			_upperThreshold = new Scalar(60, 255, 255);
-		}
+		_lowerThreshold = new Scalar(TrackingTables.lowerThreshold(_trackingColor));
+		_upperThreshold = new Scalar(TrackingTables.upperThreshold(_trackingColor));
 		_showContourEnable = _sharedPreferences.getBoolean("contour", false);
 
 		_opencvCameraView = (JavaCameraView) findViewById(R.id.aav_activity_surface_view);
@@ -154,34 +160,57 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 		_showContourEnable = _sharedPreferences.getBoolean("contour", false);
 		_trackingColor = Integer.parseInt(_sharedPreferences.getString(getString(R.string.color_key), "0"));
 
-		switch (_trackingColor) {
-		case 0: // Green
-			_lowerThreshold.set(new double[] { 60, 100, 30, 0 });
-			_upperThreshold.set(new double[] { 130, 255, 255, 0 });
-			break;
-		case 1: // Purple
-			_lowerThreshold.set(new double[] { 160, 50, 90 });
-			_upperThreshold.set(new double[] { 255, 255, 255, 0 });
-			break;
-		case 2: // Orange
-			_lowerThreshold.set(new double[] { 1, 50, 150 });
-			_upperThreshold.set(new double[] { 60, 255, 255, 0 });
-			break;
-		default:
-			_lowerThreshold.set(new double[] { 60, 100, 30, 0 });
-			_upperThreshold.set(new double[] { 130, 255, 255, 0 });
-			break;
+		_lowerThreshold.set(TrackingTables.lowerThreshold(_trackingColor));
+		_upperThreshold.set(TrackingTables.upperThreshold(_trackingColor));
+	}
+
+	/**
+	 * Loads the OpenCV native libraries on a worker thread so the load overlaps with layout inflation and the IOIO connection, then enables the camera on the
+	 * UI thread.
+	 */
+	private void loadOpenCvAsync() {
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				final boolean loaded = OpenCVLoader.initDebug();
+				Log.i(_TAG, "OpenCV native load: " + elapsedMillis() + " ms");
+
+				runOnUiThread(new Runnable() {
+					@Override
+					public void run() {
+						if (!loaded) {
+							Log.e(_TAG, "Unable to load OpenCV");
+							Toast.makeText(AAVActivity.this, R.string.opencv_load_failed, Toast.LENGTH_LONG).show();
+							return;
+						}
+						_openCvLoaded = true;
+						if (_isResumed)
+							enableCamera();
+					}
+				});
+			}
+		}, "OpenCVLoader").start();
+	}
+
+	private void enableCamera() {
+		if (_openCvLoaded) {
+			// if (!OpenCVLoader.initAsync(OpenCVLoader.OPENCV_VERSION_3_1_0, this, mLoaderCallback)) {
+			// Log.e(_TAG, "Cannot connect to OpenCV Manager");
+			// }
+			mLoaderCallback.onManagerConnected(LoaderCallbackInterface.SUCCESS);
 		}
 	}
 
+	private long elapsedMillis() {
+		return (SystemClock.elapsedRealtimeNanos() - _startupNanos) / 1000000;
+	}
+
 	@Override
 	public void onResume() {
 		super.onResume();
 
-		// if (!OpenCVLoader.initAsync(OpenCVLoader.OPENCV_VERSION_3_1_0, this, mLoaderCallback)) {
-		// Log.e(_TAG, "Cannot connect to OpenCV Manager");
-		// }
-		mLoaderCallback.onManagerConnected(LoaderCallbackInterface.SUCCESS);
+		_isResumed = true;
+		enableCamera();
 		hideNavigationBar();
 	}
 
@@ -189,6 +218,8 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 	public void onPause() {
 		super.onPause();
 
+		_isResumed = false;
+
 		if (_opencvCameraView != null)
 			_opencvCameraView.disableView();
 	}
@@ -236,11 +267,17 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 
 			_rgbaImage = inputFrame.rgba();
 
-			if (android.os.Build.MODEL.equalsIgnoreCase("Nexus 5X")) {
+			if (!_firstFrameReported) {
+				_firstFrameReported = true;
+				Log.i(_TAG, "Time to first frame: " + elapsedMillis() + " ms");
+			}
+
+			if (FLIP_FRAME) {
 				Core.flip(_rgbaImage, _rgbaImage, -1);
 			}
 
 			double current_contour;
+			int largest_contour = -1;
 
 			// In contrast to the C++ interface, Android API captures images in the RGBA format.
 			// Also, in HSV space, only the hue determines which color it is. Saturation determines
@@ -249,25 +286,34 @@ public class AAVActivity extends IOIOActivity implements CvCameraViewListener2 {
 
 			Core.inRange(_hsvMat, _lowerThreshold, _upperThreshold, _processedMat);
 
+			// The erode kernel, contour hierarchy and contour points Mats are reused across frames; findContours still creates one MatOfPoint
+			// per contour, which is released below.
 			// Imgproc.dilate(_processedMat, _dilatedMat, new Mat());
-			Imgproc.erode(_processedMat, _dilatedMat, new Mat());
-			Imgproc.findContours(_dilatedMat, contours, new Mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
-			MatOfPoint2f points = new MatOfPoint2f();
+			Imgproc.erode(_processedMat, _dilatedMat, _erodeKernel);
+			Imgproc.findContours(_dilatedMat, contours, _hierarchyMat, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
 			_contourArea = 7;
 			for (int i = 0, n = contours.size(); i < n; i++) {
 				current_contour = Imgproc.contourArea(contours.get(i));
 				if (current_contour > _contourArea) {
 					_contourArea = current_contour;
-					contours.get(i).convertTo(points, CvType.CV_32FC2); // contours.get(x) is a single MatOfPoint, but to use minEnclosingCircle we need to pass a MatOfPoint2f so we need to do a
-					// conversion
+					largest_contour = i;
 				}
 			}
-			if (!points.empty() && _contourArea > MIN_CONTOUR_AREA) {
-				Imgproc.minEnclosingCircle(points, _centerPoint, null);
+			if (largest_contour >= 0 && _contourArea > MIN_CONTOUR_AREA) {
+				// contours.get(x) is a single MatOfPoint, but to use minEnclosingCircle we need to pass a MatOfPoint2f so we need to do a
+				// conversion. Only the largest contour is converted, once, instead of every time a larger one is found.
+				contours.get(largest_contour).convertTo(_contourPoints, CvType.CV_32FC2);
+				Imgproc.minEnclosingCircle(_contourPoints, _centerPoint, null);
+				if (!_firstTrackedFrameReported) {
+					_firstTrackedFrameReported = true;
+					Log.i(_TAG, "Time to first tracked frame: " + elapsedMillis() + " ms");
+				}
 				// Core.circle(_rgbaImage, _centerPoint, 3, new Scalar(255, 0, 0), Core.FILLED);
 				if (_showContourEnable)
 					Core.circle(_rgbaImage, _centerPoint, (int) Math.round(Math.sqrt(_contourArea / Math.PI)), new Scalar(255, 0, 0), 3, 8, 0);// Core.FILLED);
 			}
+			for (int i = 0, n = contours.size(); i < n; i++)
+				contours.get(i).release();
 			contours.clear();
 		}
 		return _rgbaImage;
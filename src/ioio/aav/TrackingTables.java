@@ -0,0 +1,51 @@
+/*
+ * This file is part of the Autonomous Android Vehicle (AAV) application.
+ *
+ * AAV is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AAV is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with AAV.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ioio.aav;
+
+/**
+ * HSV thresholds for each tracking color, indexed by the color_values preference.
+ */
+public class TrackingTables {
+
+	static final int COLOR_GREEN = 0;
+	static final int COLOR_PURPLE = 1;
+	static final int COLOR_ORANGE = 2;
+
+	private static final double[][] LOWER_THRESHOLDS = { { 60, 100, 30, 0 }, // Green
+			{ 160, 50, 90, 0 }, // Purple
+			{ 1, 50, 150, 0 } }; // Orange
+
+	private static final double[][] UPPER_THRESHOLDS = { { 130, 255, 255, 0 }, // Green
+			{ 255, 255, 255, 0 }, // Purple
+			{ 60, 255, 255, 0 } }; // Orange
+
+	private TrackingTables() {
+	}
+
+	static double[] lowerThreshold(int trackingColor) {
+		return LOWER_THRESHOLDS[indexOf(trackingColor)];
+	}
+
+	static double[] upperThreshold(int trackingColor) {
+		return UPPER_THRESHOLDS[indexOf(trackingColor)];
+	}
+
+	private static int indexOf(int trackingColor) {
+		return (trackingColor >= 0 && trackingColor < LOWER_THRESHOLDS.length) ? trackingColor : COLOR_GREEN;
+	}
+}